@@ -0,0 +1,398 @@
+package com.ordoAetheris.drafts.solution;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ Bounded Buffer между процессами (SPSC через memory-mapped файл)
+ Что это за класс задач
+ Тот же producer–consumer с backpressure, но producer и consumer живут в разных JVM на одном хосте.
+ Вместо loopback-сокета — общий файл, замапленный в память обоими процессами:
+ ни одного syscall'а на сообщение, только load/store в общую память.
+
+ Главная идея: cursors в общей памяти + memory ordering
+ tail пишет только producer, head пишет только consumer (SPSC → никаких CAS на горячем пути)
+ producer: сначала пишет запись, потом tail через setRelease (публикация)
+ consumer: читает tail через getAcquire → видит запись целиком; head отдаёт через setRelease
+ Ни lock'ов, ни Condition между процессами нет → ожидание = spin (onSpinWait), потом parkNanos polling.
+
+ Прод-аналоги
+ Chronicle Queue, Aeron IPC (log buffers в /dev/shm), LMAX Disruptor (cursors + padding)
+
+
+ Раскладка файла
+ [0..64)    magic, capacity, producer (pid, start), consumer (pid, start)
+ [64..128)  tail  (своя cache line, чтобы не было false sharing)
+ [128..192) head  (своя cache line)
+ [192..)    data: кольцо из capacity байт
+ Запись: int length + payload, выровнено до 8 байт.
+ Если запись не помещается до конца кольца — пишется маркер PADDING и запись начинается с 0.
+ EOF — это тоже запись в кольце (маркер EOF, 8 байт), а не флаг в заголовке:
+ она стоит ровно после последней записи своей сессии и не может потеряться или "переехать" в другую сессию.
+ Последние 8 байт кольца обычные записи никогда не занимают → место под EOF есть всегда, close() не ждёт.
+ Исключение — пустая сессия сразу за непрочитанным EOF при полном кольце: её EOF сливается с предыдущим.
+
+ Сессия
+ open(PRODUCER) … close() — одна сессия. Следующий producer пишет свою сессию сразу за EOF предыдущей.
+ Consumer-handle читает записи и отдаёт null на EOF; после этого он всегда отдаёт null.
+ Следующую сессию читает новый open(CONSUMER) — он продолжает с того же head.
+
+ Класс: MappedByteQueue (AutoCloseable)
+
+ Методы
+ static MappedByteQueue open(Path file, int capacity, Role role) throws IOException
+ capacity кратно 8 и >= 32 → иначе IllegalArgumentException
+ файл новый → создаётся и размечается (под FileLock, чтобы два процесса не размечали/не подключались одновременно)
+ файл есть → проверяются magic и capacity, иначе IllegalStateException
+ роль уже занята живым процессом → IllegalStateException
+ в этой JVM уже открыт handle с той же ролью на тот же файл → IllegalStateException (SPSC)
+
+ boolean tryPut(byte[] record)          (только PRODUCER)
+ record == null → IllegalArgumentException
+ record длиннее maxRecordLength() → IllegalArgumentException
+ если handle закрыт → IllegalStateException
+ если места нет → false, не ждёт
+
+ void put(byte[] record) throws InterruptedException   (только PRODUCER)
+ как tryPut, но ждёт места
+ consumer умер или ещё не подключился → ждёт, пока его перезапустят (записи дождутся его в файле)
+ close() из другого потока будит ожидающий put() → IllegalStateException
+
+ byte[] take() throws InterruptedException   (только CONSUMER)
+ пусто → ждёт (в том числе если producer умер: ждёт, пока новый producer сделает open())
+ EOF-запись текущей сессии → null, дальше всегда null
+ handle закрыт → null
+ запись в файле битая (length вне [0, maxRecordLength()] или вылезает за tail) → IllegalStateException
+
+ void close()
+ idempotent; освобождает роль: слот владельца в файле чистится, ту же роль можно сразу открыть снова
+ PRODUCER: дописывает EOF в кольцо (producer EOF), будит ожидающий put()
+ CONSUMER: только отключается (consumer cancel); кольцо и producer не трогает —
+ put() продолжает работать, записи ждут следующего consumer'а
+
+ boolean isClosed()
+ этот handle закрыт (PRODUCER) или дочитал свою сессию до EOF / закрыт (CONSUMER)
+
+ boolean isPeerAlive()
+ подключён ли сейчас живой процесс с противоположной ролью
+ put()/take() на смерть peer'а не реагируют — решать, ждать ли дальше, вызывающему (можно interrupt())
+
+ Восстановление после падения peer'а
+ head/tail лежат в файле и переживают процесс.
+ Запись видна consumer'у только после setRelease(tail) → недописанная запись упавшего producer'а просто теряется,
+ кольцо остаётся консистентным.
+ Выжившая сторона не завершается, а ждёт: consumer — новых записей, producer — места.
+ Перезапущенный процесс делает open() с той же ролью: старый владелец мёртв → роль перехватывается,
+ работа продолжается с сохранённого cursor'а; порядок перезапуска сторон не важен:
+ EOF лежит в кольце, поэтому consumer, открытый раньше нового producer'а, просто ждёт, а не получает ложный EOF.
+ Владелец роли = pid + время старта процесса (ProcessHandle.Info.startInstant):
+ если ОС переиспользовала pid, время старта не совпадёт и роль всё равно перехватится.
+
+ Инварианты
+ no lost items, no duplicate items (для закоммиченных записей)
+ SPSC: один handle на роль; put() зовёт один поток, take() — один поток
+ 0 <= tail - head <= capacity
+ */
+public final class MappedByteQueue implements AutoCloseable {
+
+    public enum Role { PRODUCER, CONSUMER }
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final int MAGIC = 0x4D42_5131; // "MBQ1"
+    private static final int PADDING = -1;
+    private static final int EOF = -2;
+    private static final int EOF_SIZE = 8;
+    private static final byte[] EOF_RECORD = new byte[0];
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int PRODUCER_OFFSET = 16; // pid, затем start (epoch millis)
+    private static final int CONSUMER_OFFSET = 32;
+    private static final int TAIL_OFFSET = 64;
+    private static final int HEAD_OFFSET = 128;
+    private static final int HEADER_SIZE = 192;
+
+    private static final int SPIN_LIMIT = 1_000;
+    private static final long PARK_NANOS = 50_000;
+
+    // "<real path>#<role>" открытых в этой JVM handle'ов; под этим же монитором берётся FileLock —
+    // два потока одной JVM не получат OverlappingFileLockException
+    private static final Set<String> OPEN_HANDLES = new HashSet<>();
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Role role;
+    private final String handleKey;
+    // put() и close() producer'а пишут tail: close() из другого потока не должен писать EOF посреди offer()
+    private final ReentrantLock producerLock = new ReentrantLock();
+    private volatile boolean closed = false;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    private MappedByteQueue(MappedByteBuffer buffer, int capacity, Role role, String handleKey) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.role = role;
+        this.handleKey = handleKey;
+    }
+
+    public static MappedByteQueue open(Path file, int capacity, Role role) throws IOException {
+        if (capacity < 32 || capacity % 8 != 0) throw new IllegalArgumentException("capacity must be >= 32 and a multiple of 8");
+        if (role == null) throw new IllegalArgumentException();
+
+        synchronized (OPEN_HANDLES) {
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                String handleKey = file.toRealPath() + "#" + role;
+                if (OPEN_HANDLES.contains(handleKey)) {
+                    throw new IllegalStateException(role + " is already open in this JVM for " + file);
+                }
+                FileLock lock = channel.lock();
+                MappedByteQueue queue;
+                try {
+                    queue = map(channel, capacity, role, handleKey);
+                } finally {
+                    lock.release();
+                }
+                OPEN_HANDLES.add(handleKey);
+                return queue;
+            }
+        }
+    }
+
+    // вызывается под FileLock
+    private static MappedByteQueue map(FileChannel channel, int capacity, Role role, String handleKey) throws IOException {
+        boolean fresh = channel.size() == 0;
+        if (!fresh && channel.size() != HEADER_SIZE + (long) capacity) {
+            throw new IllegalStateException("file size does not match capacity " + capacity);
+        }
+        // mapping живёт и после закрытия channel
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity);
+        if (fresh) {
+            INT.set(buffer, CAPACITY_OFFSET, capacity);
+            INT.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+        } else {
+            if ((int) INT.getAcquire(buffer, MAGIC_OFFSET) != MAGIC) throw new IllegalStateException("not a queue file");
+            if ((int) INT.get(buffer, CAPACITY_OFFSET) != capacity) throw new IllegalStateException("capacity mismatch");
+        }
+
+        MappedByteQueue queue = new MappedByteQueue(buffer, capacity, role, handleKey);
+        queue.attach();
+        return queue;
+    }
+
+    public int maxRecordLength() {
+        // запись + возможный PADDING перед ней всегда помещаются в пустое кольцо за вычетом места под EOF
+        return ((capacity - EOF_SIZE) / 2 & ~7) - Integer.BYTES;
+    }
+
+    public boolean tryPut(byte[] record) {
+        int size = recordSize(record);
+        requireRole(Role.PRODUCER);
+        producerLock.lock();
+        try {
+            if (closed) throw new IllegalStateException();
+            return offer(record, size);
+        } finally {
+            producerLock.unlock();
+        }
+    }
+
+    public void put(byte[] record) throws InterruptedException {
+        int size = recordSize(record);
+        requireRole(Role.PRODUCER);
+        for (int spins = 0; ; spins = Math.min(spins + 1, SPIN_LIMIT)) {
+            producerLock.lock();
+            try {
+                if (closed) throw new IllegalStateException();
+                if (offer(record, size)) return;
+            } finally {
+                producerLock.unlock();
+            }
+            idle(spins);
+        }
+    }
+
+    public byte[] take() throws InterruptedException {
+        requireRole(Role.CONSUMER);
+        for (int spins = 0; ; spins = Math.min(spins + 1, SPIN_LIMIT)) {
+            if (closed) return null;
+            byte[] result = poll();
+            if (result == EOF_RECORD) {
+                closed = true;
+                return null;
+            }
+            if (result != null) return result;
+            idle(spins);
+        }
+    }
+
+    @Override
+    public void close() {
+        // роль освобождается ровно один раз: повторный close() не должен снять роль с нового handle'а этой JVM
+        if (!released.compareAndSet(false, true)) return;
+        if (role == Role.PRODUCER) {
+            producerLock.lock();
+            try {
+                closed = true;
+                writeEof();
+            } finally {
+                producerLock.unlock();
+            }
+        } else {
+            closed = true;
+        }
+        detach();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean isPeerAlive() {
+        int peerOffset = role == Role.PRODUCER ? CONSUMER_OFFSET : PRODUCER_OFFSET;
+        long pid = (long) LONG.getVolatile(buffer, peerOffset);
+        // 0 — peer не подключён
+        return pid != 0 && isAlive(pid, (long) LONG.getVolatile(buffer, peerOffset + Long.BYTES));
+    }
+
+    // только producer, под producerLock
+    private boolean offer(byte[] record, int size) {
+        long tail = (long) LONG.get(buffer, TAIL_OFFSET);
+        long head = (long) LONG.getAcquire(buffer, HEAD_OFFSET);
+        int offset = (int) (tail % capacity);
+        int skip = capacity - offset < size ? capacity - offset : 0;
+        if (tail + skip + size - head > capacity - EOF_SIZE) return false;
+
+        if (skip > 0) {
+            INT.set(buffer, HEADER_SIZE + offset, PADDING);
+            tail += skip;
+            offset = 0;
+        }
+        INT.set(buffer, HEADER_SIZE + offset, record.length);
+        buffer.put(HEADER_SIZE + offset + Integer.BYTES, record);
+        LONG.setRelease(buffer, TAIL_OFFSET, tail + size);
+        return true;
+    }
+
+    // только producer, под producerLock; offset кратен 8 → EOF помещается без PADDING.
+    // После каждой записи offer() оставляет EOF_SIZE свободными, поэтому места нет, только если
+    // последним в кольце лежит непрочитанный EOF, а эта сессия пустая — тогда её EOF сливается с предыдущим.
+    private void writeEof() {
+        long tail = (long) LONG.get(buffer, TAIL_OFFSET);
+        long head = (long) LONG.getAcquire(buffer, HEAD_OFFSET);
+        if (tail + EOF_SIZE - head > capacity) return;
+        INT.set(buffer, HEADER_SIZE + (int) (tail % capacity), EOF);
+        LONG.setRelease(buffer, TAIL_OFFSET, tail + EOF_SIZE);
+    }
+
+    // только consumer; EOF_RECORD — EOF-запись, null — пусто
+    private byte[] poll() {
+        long head = (long) LONG.get(buffer, HEAD_OFFSET);
+        long tail = (long) LONG.getAcquire(buffer, TAIL_OFFSET);
+        if (head == tail) return null;
+
+        int offset = (int) (head % capacity);
+        int length = (int) INT.get(buffer, HEADER_SIZE + offset);
+        if (length == PADDING) {
+            // PADDING публикуется вместе со следующей записью, поэтому она уже есть
+            head += capacity - offset;
+            if (head >= tail) throw corrupt(head);
+            offset = 0;
+            length = (int) INT.get(buffer, HEADER_SIZE + offset);
+        }
+        if (length == EOF) {
+            LONG.setRelease(buffer, HEAD_OFFSET, head + EOF_SIZE);
+            return EOF_RECORD;
+        }
+        // length читается из файла, который пишет другой (возможно, упавший) процесс — не доверяем
+        if (length < 0 || length > maxRecordLength() || align(Integer.BYTES + length) > tail - head) throw corrupt(head);
+
+        byte[] result = new byte[length];
+        buffer.get(HEADER_SIZE + offset + Integer.BYTES, result);
+        LONG.setRelease(buffer, HEAD_OFFSET, head + align(Integer.BYTES + length));
+        return result;
+    }
+
+    private static IllegalStateException corrupt(long position) {
+        return new IllegalStateException("corrupt record at position " + position);
+    }
+
+    // вызывается под FileLock, поэтому проверка владельца и перехват роли атомарны между процессами
+    private void attach() {
+        int ownerOffset = ownerOffset();
+        ProcessHandle self = ProcessHandle.current();
+        long selfStart = startMillis(self);
+        long ownerPid = (long) LONG.getVolatile(buffer, ownerOffset);
+        long ownerStart = (long) LONG.getVolatile(buffer, ownerOffset + Long.BYTES);
+        // живой handle этой JVM отсекается ещё в open() по OPEN_HANDLES → свой pid в слоте — это хвост незакрытого handle'а
+        boolean ownedBySelf = ownerPid == self.pid() && ownerStart == selfStart;
+        if (ownerPid != 0 && !ownedBySelf && isAlive(ownerPid, ownerStart)) {
+            throw new IllegalStateException(role + " is already attached by pid " + ownerPid);
+        }
+        LONG.setVolatile(buffer, ownerOffset + Long.BYTES, selfStart);
+        LONG.setVolatile(buffer, ownerOffset, self.pid());
+    }
+
+    // чистим слот, только если он всё ещё наш: пока мы живы, чужой attach() его не перезапишет
+    private void detach() {
+        long self = ProcessHandle.current().pid();
+        LONG.compareAndSet(buffer, ownerOffset(), self, 0L);
+        synchronized (OPEN_HANDLES) {
+            OPEN_HANDLES.remove(handleKey);
+        }
+    }
+
+    private int ownerOffset() {
+        return role == Role.PRODUCER ? PRODUCER_OFFSET : CONSUMER_OFFSET;
+    }
+
+    private static boolean isAlive(long pid, long start) {
+        return ProcessHandle.of(pid)
+                .filter(ProcessHandle::isAlive)
+                // start == 0 — ОС не отдала время старта, остаётся сверять только pid
+                .map(handle -> {
+                    long actual = startMillis(handle);
+                    return start == 0 || actual == 0 || actual == start;
+                })
+                .orElse(false);
+    }
+
+    private static long startMillis(ProcessHandle handle) {
+        return handle.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+    }
+
+    private static void idle(int spins) throws InterruptedException {
+        if (Thread.interrupted()) throw new InterruptedException();
+        if (spins < SPIN_LIMIT) Thread.onSpinWait();
+        else LockSupport.parkNanos(PARK_NANOS);
+    }
+
+    private void requireRole(Role expected) {
+        if (role != expected) throw new IllegalStateException("operation requires " + expected + " role");
+    }
+
+    private int recordSize(byte[] record) {
+        if (record == null) throw new IllegalArgumentException();
+        if (record.length > maxRecordLength()) throw new IllegalArgumentException("record is longer than " + maxRecordLength());
+        return align(Integer.BYTES + record.length);
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
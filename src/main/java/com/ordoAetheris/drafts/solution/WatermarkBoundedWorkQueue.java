@@ -0,0 +1,198 @@
+package com.ordoAetheris.drafts.solution;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ Bounded Buffer с high/low watermark (неблокирующий backpressure)
+ Что это за класс задач
+ Тот же BoundedWorkQueue, но producer не обязан парковаться в put().
+ Как writability в Netty: очередь сообщает "перестань читать" / "можно читать дальше",
+ а сетевой reader сам ставит чтение из сокета на паузу, не занимая поток.
+
+ Главная идея: hysteresis
+ unwritable — когда size дорос до highWatermark
+ writable — когда size упал ниже lowWatermark
+ Между low и high состояние не меняется, поэтому listener не "дребезжит"
+ на каждом put()/take() около одной границы.
+
+ Прод-аналоги
+ Netty: WriteBufferWaterMark + channelWritabilityChanged
+ Reactive Streams: request(n) / demand-driven pull
+
+
+ Класс: WatermarkBoundedWorkQueue<T>
+
+ Методы
+ WatermarkBoundedWorkQueue(int capacity, int lowWatermark, int highWatermark)
+ требуется 0 < lowWatermark <= highWatermark <= capacity → иначе IllegalArgumentException
+
+ void addWritabilityListener(WritabilityListener listener)
+ listener == null → IllegalArgumentException
+
+ boolean tryPut(T item)
+ item == null → IllegalArgumentException
+ если closed → IllegalStateException
+ если очередь заполнена (size == capacity) → false, не ждёт
+ иначе кладёт элемент, будит ожидающих take() и возвращает true
+
+ void put(T item) throws InterruptedException
+ как в BoundedWorkQueue: ждёт, пока появится место
+
+ T take() throws InterruptedException
+ как в BoundedWorkQueue: пусто и closed → null (EOF)
+
+ boolean isWritable()
+
+ void close()
+ как в BoundedWorkQueue, idempotent; сам close() перехода writability не даёт
+ (take() при дочитывании закрытой очереди ниже lowWatermark по-прежнему сообщает writable)
+
+ Инварианты
+ всё из BoundedWorkQueue
+ listener зовётся ровно один раз на переход writable → unwritable и обратно, переходы чередуются
+ listener зовётся под lock'ом, в потоке, который сделал put()/take():
+ он должен быть быстрым и НЕ блокирующим (только выставить флаг / снять autoRead)
+ исключение из listener'а не ломает put()/take(): элемент уже положен/забран,
+ исключение уходит в UncaughtExceptionHandler текущего потока, остальные listener'ы всё равно зовутся
+ listener может звать очередь (tryPut/take/addWritabilityListener) из колбэка:
+ переход, случившийся во время уведомления, ставится в очередь и доставляется всем после текущего раунда
+ */
+public class WatermarkBoundedWorkQueue<T> {
+
+    public interface WritabilityListener {
+        void writabilityChanged(boolean writable);
+    }
+
+    private final Queue<T> queue;
+    private boolean closed = false;
+    private boolean writable = true;
+    private final int capacity;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final List<WritabilityListener> listeners = new ArrayList<>();
+    private final Queue<Boolean> pendingTransitions = new ArrayDeque<>();
+    private boolean notifying = false;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public WatermarkBoundedWorkQueue(int capacity, int lowWatermark, int highWatermark) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        if (lowWatermark <= 0) throw new IllegalArgumentException("lowWatermark must be > 0");
+        if (lowWatermark > highWatermark) throw new IllegalArgumentException("lowWatermark must be <= highWatermark");
+        if (highWatermark > capacity) throw new IllegalArgumentException("highWatermark must be <= capacity");
+        queue = new ArrayDeque<>(capacity);
+        this.capacity = capacity;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+    }
+
+    public void addWritabilityListener(WritabilityListener listener) {
+        if (listener == null) throw new IllegalArgumentException();
+        lock.lock();
+        try {
+            listeners.add(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryPut(T element) {
+        if (element == null) throw new IllegalArgumentException();
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException();
+            if (queue.size() >= capacity) return false;
+            enqueue(element);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(T element) throws InterruptedException {
+        if (element == null) throw new IllegalArgumentException();
+        lock.lock();
+        try {
+            while (!closed && queue.size() >= capacity) notFull.await();
+            if (closed) throw new IllegalStateException();
+            enqueue(element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public T take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed && queue.isEmpty()) notEmpty.await();
+            if (closed && queue.isEmpty()) return null;
+            T result = queue.poll();
+            notFull.signal();
+            if (!writable && queue.size() < lowWatermark) setWritable(true);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isWritable() {
+        lock.lock();
+        try {
+            return writable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // вызывается под lock'ом
+    private void enqueue(T element) {
+        queue.offer(element);
+        notEmpty.signal();
+        if (writable && queue.size() >= highWatermark) setWritable(false);
+    }
+
+    // вызывается под lock'ом: переходы из колбэков не вкладываются, а доставляются следующим раундом,
+    // поэтому каждый listener видит их в том же порядке, в каком они случились
+    private void setWritable(boolean value) {
+        writable = value;
+        pendingTransitions.offer(value);
+        if (notifying) return;
+        notifying = true;
+        try {
+            while (!pendingTransitions.isEmpty()) {
+                boolean transition = pendingTransitions.poll();
+                for (WritabilityListener listener : List.copyOf(listeners)) notifyListener(listener, transition);
+            }
+        } finally {
+            notifying = false;
+            pendingTransitions.clear();
+        }
+    }
+
+    private static void notifyListener(WritabilityListener listener, boolean writable) {
+        try {
+            listener.writabilityChanged(writable);
+        } catch (RuntimeException e) {
+            Thread current = Thread.currentThread();
+            current.getUncaughtExceptionHandler().uncaughtException(current, e);
+        }
+    }
+}
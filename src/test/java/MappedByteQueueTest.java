@@ -0,0 +1,331 @@
+import com.ordoAetheris.drafts.solution.MappedByteQueue;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+import static com.ordoAetheris.drafts.solution.MappedByteQueue.Role.CONSUMER;
+import static com.ordoAetheris.drafts.solution.MappedByteQueue.Role.PRODUCER;
+import static org.junit.jupiter.api.Assertions.*;
+
+    @DisplayName("Bounded Buffer: MappedByteQueue (shared memory)")
+    class MappedByteQueueTest {
+
+        // смещение кольца данных в файле (см. "Раскладка файла" в MappedByteQueue)
+        private static final int DATA_OFFSET = 192;
+
+        @TempDir
+        Path dir;
+
+        // ---------------------------- FUNCTIONAL REQUIREMENTS ----------------------------
+
+        @Nested
+        @DisplayName("Functional requirements")
+        class Functional {
+
+            @Test
+            @DisplayName("capacity must be >= 32 and a multiple of 8")
+            void capacityMustBeAligned() {
+                Path f = dir.resolve("q");
+                assertThrows(IllegalArgumentException.class, () -> MappedByteQueue.open(f, 16, PRODUCER));
+                assertThrows(IllegalArgumentException.class, () -> MappedByteQueue.open(f, 36, PRODUCER));
+            }
+
+            @Test
+            @DisplayName("reopen with other capacity -> IllegalStateException")
+            void reopenWithOtherCapacity_throwsISE() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue.open(f, 64, PRODUCER);
+                assertThrows(IllegalStateException.class, () -> MappedByteQueue.open(f, 128, CONSUMER));
+            }
+
+            @Test
+            @DisplayName("put(null) / record longer than max -> IllegalArgumentException")
+            void badRecord_throwsIAE() throws Exception {
+                MappedByteQueue p = MappedByteQueue.open(dir.resolve("q"), 64, PRODUCER);
+                assertThrows(IllegalArgumentException.class, () -> p.put(null));
+                assertThrows(IllegalArgumentException.class, () -> p.tryPut(new byte[p.maxRecordLength() + 1]));
+            }
+
+            @Test
+            @DisplayName("wrong role -> IllegalStateException")
+            void wrongRole_throwsISE() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+                assertThrows(IllegalStateException.class, p::take);
+                assertThrows(IllegalStateException.class, () -> c.tryPut(new byte[1]));
+            }
+
+            @Test
+            @DisplayName("second live handle for the same role in one JVM -> IllegalStateException; close releases the role")
+            void secondHandleSameRole_rejectedUntilClose() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                assertThrows(IllegalStateException.class, () -> MappedByteQueue.open(f, 64, PRODUCER));
+
+                p.close();
+                p.close(); // idempotent: не снимает роль с handle'а ниже
+                MappedByteQueue p2 = MappedByteQueue.open(f, 64, PRODUCER);
+                assertThrows(IllegalStateException.class, () -> MappedByteQueue.open(f, 64, PRODUCER));
+                assertTrue(p2.tryPut(new byte[]{1}));
+            }
+
+            @Test
+            @DisplayName("tryPut on full -> false, take frees space")
+            void tryPutOnFull_returnsFalse() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 32, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 32, CONSUMER);
+
+                // каждая запись = 4 байта length + 4 байта payload = 8 байт; последние 8 байт — под EOF
+                for (int i = 0; i < 3; i++) assertTrue(p.tryPut(new byte[]{(byte) i, 0, 0, 0}));
+                assertFalse(p.tryPut(new byte[]{9, 0, 0, 0}));
+
+                assertEquals(0, c.take()[0]);
+                assertTrue(p.tryPut(new byte[]{3, 0, 0, 0}));
+                for (int i = 1; i <= 3; i++) assertEquals(i, c.take()[0]);
+            }
+
+            @Test
+            @DisplayName("producer close does not drop already enqueued records, then EOF (sticky)")
+            void closeDoesNotDropAlreadyEnqueued() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+
+                p.put(new byte[]{1});
+                p.put(new byte[0]);
+                p.close();
+
+                assertArrayEquals(new byte[]{1}, c.take());
+                assertArrayEquals(new byte[0], c.take());
+                assertNull(c.take());
+                assertNull(c.take());
+                assertTrue(c.isClosed());
+                assertThrows(IllegalStateException.class, () -> p.put(new byte[]{2}));
+            }
+
+            @Test
+            @DisplayName("consumer close is a cancel: producer keeps working, new consumer resumes from head")
+            void consumerClose_doesNotAffectProducer() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+                p.put(new byte[]{1});
+                p.put(new byte[]{2});
+                assertArrayEquals(new byte[]{1}, c.take());
+
+                c.close();
+                assertNull(c.take());
+                assertFalse(p.isPeerAlive());
+                assertTrue(p.tryPut(new byte[]{3}));
+
+                MappedByteQueue c2 = MappedByteQueue.open(f, 64, CONSUMER);
+                assertTrue(p.isPeerAlive());
+                assertArrayEquals(new byte[]{2}, c2.take());
+                assertArrayEquals(new byte[]{3}, c2.take());
+            }
+
+            @Test
+            @DisplayName("restart order: consumer reopens before new producer -> waits, no false EOF")
+            void consumerRestartsBeforeNewProducer_noFalseEof() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+                p.put(new byte[]{1});
+                p.close();
+                assertArrayEquals(new byte[]{1}, c.take());
+                assertNull(c.take());
+                c.close();
+
+                MappedByteQueue c2 = MappedByteQueue.open(f, 64, CONSUMER);
+                ExecutorService pool = Executors.newFixedThreadPool(1);
+                Future<byte[]> taker = pool.submit(c2::take); // ложный EOF вернул бы null
+
+                MappedByteQueue p2 = MappedByteQueue.open(f, 64, PRODUCER);
+                p2.put(new byte[]{2});
+                assertArrayEquals(new byte[]{2}, taker.get(5, TimeUnit.SECONDS));
+                pool.shutdownNow();
+            }
+
+            @Test
+            @DisplayName("restart order: new producer attaches before drain -> old session still ends with EOF")
+            void newProducerBeforeDrain_oldSessionKeepsEof() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+                p.put(new byte[]{1});
+                p.close();
+
+                MappedByteQueue p2 = MappedByteQueue.open(f, 64, PRODUCER);
+                p2.put(new byte[]{2});
+
+                assertArrayEquals(new byte[]{1}, c.take());
+                assertNull(c.take()); // EOF первой сессии
+                assertNull(c.take());
+                c.close();
+
+                MappedByteQueue c2 = MappedByteQueue.open(f, 64, CONSUMER);
+                assertArrayEquals(new byte[]{2}, c2.take());
+            }
+
+            @Test
+            @DisplayName("empty session right after unread EOF on a full ring does not overflow")
+            void emptySessionOnFullRing_doesNotOverflow() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 32, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 32, CONSUMER);
+                for (int i = 0; i < 3; i++) p.put(new byte[]{(byte) i});
+                p.close(); // EOF занимает зарезервированные 8 байт — кольцо полное
+                MappedByteQueue.open(f, 32, PRODUCER).close(); // пустая сессия: её EOF не помещается
+
+                for (int i = 0; i < 3; i++) assertArrayEquals(new byte[]{(byte) i}, c.take());
+                assertNull(c.take());
+                c.close();
+
+                MappedByteQueue p3 = MappedByteQueue.open(f, 32, PRODUCER);
+                MappedByteQueue c2 = MappedByteQueue.open(f, 32, CONSUMER);
+                p3.put(new byte[]{7});
+                assertArrayEquals(new byte[]{7}, c2.take());
+            }
+
+            @Test
+            @DisplayName("corrupt length word -> IllegalStateException, not OOM")
+            void corruptLength_throwsISE() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+                p.put(new byte[]{1});
+
+                try (FileChannel channel = FileChannel.open(f, StandardOpenOption.WRITE)) {
+                    ByteBuffer garbage = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder());
+                    garbage.putInt(0, Integer.MAX_VALUE);
+                    channel.write(garbage, DATA_OFFSET);
+                }
+
+                IllegalStateException ex = assertThrows(IllegalStateException.class, c::take);
+                assertTrue(ex.getMessage().contains("corrupt"), ex.getMessage());
+            }
+
+            @Test
+            @DisplayName("producer crash: consumer keeps waiting, restarted producer takes over")
+            void producerCrash_consumerWaitsForRestartedProducer() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+
+                // отдельная JVM: подключается как PRODUCER, кладёт запись и падает без close()
+                Process child = new ProcessBuilder(
+                        Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp", System.getProperty("java.class.path"),
+                        CrashingProducer.class.getName(), f.toString())
+                        .inheritIO()
+                        .start();
+                assertTrue(child.waitFor(30, TimeUnit.SECONDS), "child JVM did not finish");
+                assertEquals(CrashingProducer.EXIT_CODE, child.exitValue());
+
+                assertArrayEquals(new byte[]{1}, c.take());
+                assertFalse(c.isPeerAlive());
+
+                ExecutorService pool = Executors.newFixedThreadPool(1);
+                Future<byte[]> taker = pool.submit(c::take); // смерть producer'а — не EOF: null здесь был бы ошибкой
+
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER); // упавший владелец мёртв -> роль перехвачена
+                assertTrue(c.isPeerAlive());
+                p.put(new byte[]{2});
+                assertArrayEquals(new byte[]{2}, taker.get(5, TimeUnit.SECONDS));
+                pool.shutdownNow();
+            }
+
+            @Test
+            @DisplayName("producer close unblocks waiting take()")
+            void closeUnblocksTake() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 64, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 64, CONSUMER);
+
+                ExecutorService pool = Executors.newFixedThreadPool(1);
+                Future<byte[]> taker = pool.submit(c::take);
+
+                p.close();
+                assertNull(taker.get(5, TimeUnit.SECONDS));
+                pool.shutdownNow();
+            }
+
+            @Test
+            @DisplayName("producer close from another thread unblocks waiting put() -> IllegalStateException")
+            void closeUnblocksPut() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 32, PRODUCER);
+                for (int i = 0; i < 3; i++) p.put(new byte[]{(byte) i}); // полное (без места под EOF)
+
+                ExecutorService pool = Executors.newFixedThreadPool(1);
+                Future<?> putter = pool.submit(() -> {
+                    p.put(new byte[]{3});
+                    return null;
+                });
+
+                p.close();
+                ExecutionException ex = assertThrows(ExecutionException.class, () -> putter.get(5, TimeUnit.SECONDS));
+                assertTrue(ex.getCause() instanceof IllegalStateException,
+                        "expected IllegalStateException from put() after close");
+                pool.shutdownNow();
+            }
+        }
+
+        static class CrashingProducer {
+            static final int EXIT_CODE = 42;
+
+            public static void main(String[] args) throws Exception {
+                MappedByteQueue p = MappedByteQueue.open(Path.of(args[0]), 64, PRODUCER);
+                p.put(new byte[]{1});
+                Runtime.getRuntime().halt(EXIT_CODE);
+            }
+        }
+
+        // -------------------------- NON-FUNCTIONAL REQUIREMENTS --------------------------
+
+        @Nested
+        @DisplayName("Non-functional requirements (stress / race-hunting)")
+        class NonFunctional {
+
+            @Test
+            @DisplayName("SPSC: variable-length records across wrap-around, no loss/no corruption")
+            void spsc_variableLength_noLoss() throws Exception {
+                Path f = dir.resolve("q");
+                MappedByteQueue p = MappedByteQueue.open(f, 128, PRODUCER);
+                MappedByteQueue c = MappedByteQueue.open(f, 128, CONSUMER);
+                int n = 200_000;
+                int lengths = p.maxRecordLength() + 1;
+
+                ExecutorService pool = Executors.newFixedThreadPool(2);
+                Future<?> prod = pool.submit(() -> {
+                    for (int i = 0; i < n; i++) {
+                        byte[] record = new byte[i % lengths];
+                        Arrays.fill(record, (byte) i);
+                        p.put(record);
+                    }
+                    p.close();
+                    return null;
+                });
+                Future<Integer> cons = pool.submit(() -> {
+                    int i = 0;
+                    for (byte[] record; (record = c.take()) != null; i++) {
+                        assertEquals(i % lengths, record.length, "length of record " + i);
+                        for (byte b : record) assertEquals((byte) i, b, "payload of record " + i);
+                    }
+                    return i;
+                });
+
+                prod.get(20, TimeUnit.SECONDS);
+                assertEquals(n, cons.get(20, TimeUnit.SECONDS));
+                pool.shutdownNow();
+            }
+        }
+    }
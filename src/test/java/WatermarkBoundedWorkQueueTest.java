@@ -0,0 +1,216 @@
+import com.ordoAetheris.drafts.solution.WatermarkBoundedWorkQueue;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+    @DisplayName("Bounded Buffer: WatermarkBoundedWorkQueue<T>")
+    class WatermarkBoundedWorkQueueTest {
+
+        // ---------------------------- FUNCTIONAL REQUIREMENTS ----------------------------
+
+        @Nested
+        @DisplayName("Functional requirements")
+        class Functional {
+
+            @Test
+            @DisplayName("0 < low <= high <= capacity, иначе IllegalArgumentException")
+            void watermarksMustBeOrdered() {
+                assertThrows(IllegalArgumentException.class, () -> new WatermarkBoundedWorkQueue<>(0, 1, 1));
+                assertThrows(IllegalArgumentException.class, () -> new WatermarkBoundedWorkQueue<>(4, 0, 2));
+                assertThrows(IllegalArgumentException.class, () -> new WatermarkBoundedWorkQueue<>(4, 3, 2));
+                assertThrows(IllegalArgumentException.class, () -> new WatermarkBoundedWorkQueue<>(4, 2, 5));
+                new WatermarkBoundedWorkQueue<>(4, 2, 2);
+            }
+
+            @Test
+            @DisplayName("tryPut(null) -> IllegalArgumentException")
+            void tryPutNull_throwsIAE() {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(4, 1, 3);
+                assertThrows(IllegalArgumentException.class, () -> q.tryPut(null));
+            }
+
+            @Test
+            @DisplayName("tryPut after close -> IllegalStateException")
+            void tryPutAfterClose_throwsISE() {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(4, 1, 3);
+                q.close();
+                assertThrows(IllegalStateException.class, () -> q.tryPut(1));
+            }
+
+            @Test
+            @DisplayName("tryPut on full -> false, не блокируется")
+            void tryPutOnFull_returnsFalse() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(2, 1, 2);
+                assertTrue(q.tryPut(1));
+                assertTrue(q.tryPut(2));
+                assertFalse(q.tryPut(3));
+
+                assertEquals(1, q.take());
+                assertTrue(q.tryPut(3));
+                assertEquals(2, q.take());
+                assertEquals(3, q.take());
+            }
+
+            @Test
+            @DisplayName("listener: unwritable на high, writable ниже low, по одному разу на переход")
+            void listenerFiresOncePerTransition() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(8, 2, 4);
+                List<Boolean> events = new ArrayList<>();
+                q.addWritabilityListener(events::add);
+
+                assertTrue(q.tryPut(1));
+                assertTrue(q.tryPut(2));
+                assertTrue(q.tryPut(3));
+                assertTrue(q.isWritable());
+                assertEquals(List.of(), events);
+
+                assertTrue(q.tryPut(4)); // size == high
+                assertFalse(q.isWritable());
+                q.put(5);                // выше high — повторного события нет
+                assertEquals(List.of(false), events);
+
+                q.take(); // 4
+                q.take(); // 3
+                q.take(); // 2 == low — ещё unwritable
+                assertFalse(q.isWritable());
+                assertEquals(List.of(false), events);
+
+                q.take(); // 1 < low
+                assertTrue(q.isWritable());
+                q.take(); // 0 — повторного события нет
+                assertEquals(List.of(false, true), events);
+            }
+
+            @Test
+            @DisplayName("listener может сразу сделать tryPut из колбэка (lock reentrant)")
+            void listenerMayReenterQueue() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(4, 1, 2);
+                List<Boolean> events = new ArrayList<>();
+                q.addWritabilityListener(writable -> {
+                    events.add(writable);
+                    if (writable) q.tryPut(100);
+                });
+
+                q.tryPut(1);
+                q.tryPut(2);
+                assertEquals(1, q.take());
+                assertEquals(2, q.take()); // 0 < low -> writable -> колбэк кладёт 100
+                assertEquals(100, q.take());
+                assertEquals(List.of(false, true), events);
+            }
+
+            @Test
+            @DisplayName("re-entry из колбэка не вкладывает уведомления: все listener'ы видят переходы по порядку")
+            void reentrantTransitionsAreDeliveredInOrderToAllListeners() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(4, 1, 1);
+                List<String> events = new ArrayList<>();
+                List<Boolean> seenByB = new ArrayList<>();
+                q.addWritabilityListener(writable -> {
+                    events.add("A" + writable);
+                    if (writable) q.tryPut(100); // снова unwritable прямо из колбэка
+                });
+                q.addWritabilityListener(writable -> {
+                    events.add("B" + writable);
+                    seenByB.add(writable);
+                });
+
+                q.tryPut(1);
+                assertEquals(1, q.take()); // writable -> A кладёт 100 -> unwritable
+
+                assertEquals(List.of("Afalse", "Bfalse", "Atrue", "Btrue", "Afalse", "Bfalse"), events);
+                assertEquals(q.isWritable(), seenByB.get(seenByB.size() - 1));
+                assertEquals(100, q.take());
+            }
+
+            @Test
+            @DisplayName("addWritabilityListener из колбэка -> новый listener получает только следующие переходы")
+            void addListenerFromCallback() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(4, 1, 1);
+                List<Boolean> late = new ArrayList<>();
+                q.addWritabilityListener(writable -> {
+                    if (!writable && late.isEmpty()) q.addWritabilityListener(late::add);
+                });
+
+                q.tryPut(1);
+                assertEquals(List.of(), late);
+                q.take();
+                assertEquals(List.of(true), late);
+            }
+
+            @Test
+            @DisplayName("исключение из listener'а не теряет и не дублирует элементы")
+            void throwingListenerDoesNotLoseOrDuplicateItems() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(4, 1, 1);
+                List<Boolean> events = new ArrayList<>();
+                q.addWritabilityListener(writable -> { throw new IllegalStateException("boom"); });
+                q.addWritabilityListener(events::add);
+
+                List<Throwable> reported = new ArrayList<>();
+                Thread current = Thread.currentThread();
+                Thread.UncaughtExceptionHandler previous = current.getUncaughtExceptionHandler();
+                current.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+                try {
+                    assertTrue(q.tryPut(1));
+                    assertEquals(1, q.take());
+                } finally {
+                    current.setUncaughtExceptionHandler(previous);
+                }
+
+                q.close();
+                assertNull(q.take());
+                assertEquals(List.of(false, true), events);
+                assertEquals(2, reported.size());
+            }
+
+            @Test
+            @DisplayName("close сам не даёт перехода; дочитывание закрытой очереди -> writable")
+            void drainAfterClose_reportsWritable() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(4, 1, 2);
+                List<Boolean> events = new ArrayList<>();
+                q.addWritabilityListener(events::add);
+
+                q.tryPut(1);
+                q.tryPut(2);
+                q.close();
+                assertFalse(q.isWritable());
+                assertEquals(List.of(false), events);
+
+                assertEquals(1, q.take());
+                assertEquals(2, q.take()); // 0 < low
+                assertNull(q.take());      // EOF
+                assertTrue(q.isWritable());
+                assertEquals(List.of(false, true), events);
+            }
+
+            @Test
+            @DisplayName("close unblocks waiting put() (when queue is full)")
+            void closeUnblocksPut() throws Exception {
+                WatermarkBoundedWorkQueue<Integer> q = new WatermarkBoundedWorkQueue<>(1, 1, 1);
+                q.put(1);
+
+                ExecutorService pool = Executors.newFixedThreadPool(1);
+                CountDownLatch started = new CountDownLatch(1);
+
+                Future<?> f = pool.submit(() -> {
+                    started.countDown();
+                    q.put(2);
+                    return null;
+                });
+
+                started.await();
+                q.close();
+
+                ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(1, TimeUnit.SECONDS));
+                assertTrue(ex.getCause() instanceof IllegalStateException,
+                        "expected IllegalStateException from put() after close");
+
+                assertEquals(1, q.take());
+                assertNull(q.take()); // EOF
+                pool.shutdownNow();
+            }
+        }
+    }